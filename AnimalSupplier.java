@@ -0,0 +1,18 @@
+import java.util.Map;
+
+/**
+ * A source of animal shipments. Each supplier is driven by its own Delivery thread, which asks
+ * it for a shipment every tick and publishes whatever it returns to an enclosure's ingest queue.
+ * Implementations decide the schedule, shipment size and species mix.
+ */
+public interface AnimalSupplier {
+
+    String getName();
+
+    /**
+     * Called once per tick by the supplier's Delivery thread.
+     * @param currentTick
+     * @return the shipment arriving this tick (species -> count), or an empty map if none
+     */
+    Map<String, Integer> nextShipment(long currentTick);
+}
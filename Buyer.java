@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -8,16 +9,25 @@ public class Buyer implements Runnable {
     private final Map<String, Field> fields;
     private final Random rand;
     private final TickSystem tickSystem; // Store tick system
-    private int tickItGotIntoQueue = -1;
+    private final DailyStats dailyStats;
+    private final long patienceTicks; // How long to wait for an empty field (Field.WAIT_FOREVER = no limit)
+    private final int balkQueueLength; // Don't even queue if this many buyers are already waiting (0 = never balk)
+    private final boolean allowSubstitution; // Buy another in-stock species instead of leaving empty handed
+    private long tickItGotIntoQueue = -1;
 
 
     
 
-    public Buyer(String buyerName, Map<String, Field> fields, TickSystem tickSystem) {
+    public Buyer(String buyerName, Map<String, Field> fields, TickSystem tickSystem, DailyStats dailyStats,
+                 long patienceTicks, int balkQueueLength, boolean allowSubstitution) {
         this.buyerName = buyerName;
         this.fields = fields;
         this.rand = new Random();
         this.tickSystem = tickSystem; // Assign tick system
+        this.dailyStats = dailyStats;
+        this.patienceTicks = patienceTicks;
+        this.balkQueueLength = balkQueueLength;
+        this.allowSubstitution = allowSubstitution;
     }
 
     @Override
@@ -36,17 +46,65 @@ public class Buyer implements Runnable {
 
     // Try to buy a random animal from a field
     private void buyRandomAnimal() throws InterruptedException {
+        try {
+            placeOrder();
+        } catch (InterruptedException e) {
+            // Still waiting at shutdown, this wait counts too (buyOne only throws before the sale)
+            dailyStats.recordUnservedWait(getWaitTime(tickSystem.getCurrentTick()));
+            throw e;
+        }
+    }
+
+    private void placeOrder() throws InterruptedException {
         List<String> keys = new ArrayList<>(fields.keySet());
         String animal = keys.get(rand.nextInt(keys.size()));
-        int currentTick = tickSystem.getCurrentTick(); 
+        long currentTick = tickSystem.getCurrentTick(); 
         tickItGotIntoQueue = currentTick;
 
         Field field = fields.get(animal);
-        field.buyOne(buyerName, this.tickItGotIntoQueue);
+
+        // Balk: the queue is already too long, don't join it
+        if (balkQueueLength > 0 && field.getBuyersWaiting() >= balkQueueLength) {
+            System.out.println("     "+currentTick + " " + Thread.currentThread().getId() + " " + buyerName + " balked at " + animal + " (" + field.getBuyersWaiting() + " buyers waiting)");
+            dailyStats.recordBalked();
+            trySubstitute(animal, false);
+            return;
+        }
+
+        long waitedTicks = field.buyOne(buyerName, this.tickItGotIntoQueue, patienceTicks);
+        if (waitedTicks == Field.GAVE_UP) {
+            dailyStats.recordTimedOut();
+            trySubstitute(animal, true);
+            return;
+        }
+        dailyStats.recordPurchase(waitedTicks);
+    }
+
+    // Buy from the best stocked other field without waiting, otherwise the order is abandoned
+    private void trySubstitute(String wantedAnimal, boolean queued) throws InterruptedException {
+        if (allowSubstitution) {
+            Field substitute = fields.values().stream()
+                    .filter(f -> !f.getName().equals(wantedAnimal) && f.getCount() > 0)
+                    .max(Comparator.comparingInt(Field::getCount))
+                    .orElse(null);
+            if (substitute != null) {
+                long waitedTicks = substitute.buyOne(buyerName, tickItGotIntoQueue, Field.NO_WAIT);
+                if (waitedTicks != Field.GAVE_UP) { // Could have sold out before we got the lock
+                    System.out.println("     "+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + buyerName + " bought " + substitute.getName() + " instead of " + wantedAnimal);
+                    dailyStats.recordPurchase(waitedTicks);
+                    dailyStats.recordSubstituted();
+                    return;
+                }
+            }
+        }
+        dailyStats.recordAbandoned();
+        if (queued) {
+            dailyStats.recordUnservedWait(getWaitTime(tickSystem.getCurrentTick()));
+        }
     }
 
-    public int getWaitTime(int currentTick) {
-        int waitedTicks = currentTick - tickItGotIntoQueue;
+    public long getWaitTime(long currentTick) {
+        long waitedTicks = currentTick - tickItGotIntoQueue;
         return waitedTicks;
     }
 }
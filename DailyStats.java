@@ -0,0 +1,220 @@
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming per-day aggregates (purchases, buyer waits, deliveries, stock levels). Buyer waits cover
+ * purchases and unserved orders alike.
+ * Everything is a running counter or a fixed-size histogram that is reset when the day rolls
+ * over, so memory stays constant no matter how many days the simulation runs.
+ *
+ * Buyers, farmers and deliveries record into it from their own threads. Stock levels are sampled by
+ * onTick, which is registered as a TickSystem listener and runs on the tick thread.
+ */
+public class DailyStats {
+    // Waits of MAX_WAIT_BUCKET ticks or more all land in the last bucket
+    private static final int MAX_WAIT_BUCKET = 1024;
+
+    private final TickSystem tickSystem;
+    private final Map<String, Field> fields;
+    private final List<Enclosure> enclosures;
+
+    private final LongAdder purchases = new LongAdder();
+    private final LongAdder unservedWaits = new LongAdder();
+    private final LongAdder totalWaitTicks = new LongAdder();
+    private final LongAccumulator maxWaitTicks = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray waitHistogram = new AtomicLongArray(MAX_WAIT_BUCKET + 1);
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder animalsDelivered = new LongAdder();
+    private final LongAdder animalsStocked = new LongAdder();
+    private final LongAdder balked = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder substituted = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    // Stock samples, taken on the tick thread (guarded by this)
+    private long stockSamples;
+    private long fieldStockSum;
+    private int minFieldStock = Integer.MAX_VALUE;
+    private int maxFieldStock;
+    private long enclosureStockSum;
+
+    public DailyStats(TickSystem tickSystem, Map<String, Field> fields, List<Enclosure> enclosures) {
+        this.tickSystem = tickSystem;
+        this.fields = fields;
+        this.enclosures = enclosures;
+    }
+
+    public void recordPurchase(long waitedTicks) {
+        purchases.increment();
+        recordWait(waitedTicks);
+    }
+
+    // Buyer queued but left empty handed (timed out and abandoned) or was still waiting at shutdown.
+    // Counted in the wait stats so the tail isn't only the buyers who got lucky
+    public void recordUnservedWait(long waitedTicks) {
+        unservedWaits.increment();
+        recordWait(waitedTicks);
+    }
+
+    private void recordWait(long waitedTicks) {
+        totalWaitTicks.add(waitedTicks);
+        maxWaitTicks.accumulate(waitedTicks);
+        waitHistogram.incrementAndGet((int) Math.min(waitedTicks, MAX_WAIT_BUCKET));
+    }
+
+    public void recordDelivery(int animals) {
+        deliveries.increment();
+        animalsDelivered.add(animals);
+    }
+
+    // Buyer didn't queue because too many buyers were already waiting
+    public void recordBalked() {
+        balked.increment();
+    }
+
+    // Buyer ran out of patience waiting for an empty field
+    public void recordTimedOut() {
+        timedOut.increment();
+    }
+
+    // Balked or timed out buyer bought another species instead (also recorded as a purchase)
+    public void recordSubstituted() {
+        substituted.increment();
+    }
+
+    // Balked or timed out buyer left with nothing
+    public void recordAbandoned() {
+        abandoned.increment();
+    }
+
+    // Animals a farmer put into a field
+    public void recordStocked(int animals) {
+        animalsStocked.add(animals);
+    }
+
+    // Running totals for the day in progress (used by LoadingPolicyBenchmark)
+
+    public long getPurchases() {
+        return purchases.sum();
+    }
+
+    public long getUnservedWaits() {
+        return unservedWaits.sum();
+    }
+
+    public long getAbandoned() {
+        return abandoned.sum();
+    }
+
+    public long getAnimalsStocked() {
+        return animalsStocked.sum();
+    }
+
+    public synchronized long getTicksSampled() {
+        return stockSamples;
+    }
+
+    public long getWaitPercentile(double fraction) {
+        long[] histogram = new long[MAX_WAIT_BUCKET + 1];
+        long total = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = waitHistogram.get(i);
+            total += histogram[i];
+        }
+        return percentile(histogram, total, fraction);
+    }
+
+    // TickSystem listener
+    public void onTick(long tick) {
+        if (tick % tickSystem.getTicksPerDay() == 0) {
+            printSummary(tick / tickSystem.getTicksPerDay() - 1, true); // The day that just ended
+        }
+        sampleStock();
+    }
+
+    private synchronized void sampleStock() {
+        int fieldStock = 0;
+        for (Field field : fields.values()) {
+            fieldStock += field.getCount();
+        }
+        int enclosureStock = 0;
+        for (Enclosure enclosure : enclosures) {
+            enclosureStock += enclosure.getStockCount();
+        }
+        stockSamples++;
+        fieldStockSum += fieldStock;
+        minFieldStock = Math.min(minFieldStock, fieldStock);
+        maxFieldStock = Math.max(maxFieldStock, fieldStock);
+        enclosureStockSum += enclosureStock;
+    }
+
+    // Summary for the day in progress, e.g. at shutdown
+    public void printSummary() {
+        printSummary(tickSystem.getDay(), false);
+    }
+
+    private synchronized void printSummary(long day, boolean reset) {
+        long dayPurchases = reset ? purchases.sumThenReset() : purchases.sum();
+        long dayUnserved = reset ? unservedWaits.sumThenReset() : unservedWaits.sum();
+        long dayWait = reset ? totalWaitTicks.sumThenReset() : totalWaitTicks.sum();
+        long dayMaxWait = reset ? maxWaitTicks.getThenReset() : maxWaitTicks.get();
+        long dayDeliveries = reset ? deliveries.sumThenReset() : deliveries.sum();
+        long dayAnimalsDelivered = reset ? animalsDelivered.sumThenReset() : animalsDelivered.sum();
+        long dayAnimalsStocked = reset ? animalsStocked.sumThenReset() : animalsStocked.sum();
+        long dayBalked = reset ? balked.sumThenReset() : balked.sum();
+        long dayTimedOut = reset ? timedOut.sumThenReset() : timedOut.sum();
+        long daySubstituted = reset ? substituted.sumThenReset() : substituted.sum();
+        long dayAbandoned = reset ? abandoned.sumThenReset() : abandoned.sum();
+        // The counters and the histogram are reset one by one, so take the p99 total from the snapshot itself
+        long[] histogram = new long[MAX_WAIT_BUCKET + 1];
+        long histogramTotal = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = reset ? waitHistogram.getAndSet(i, 0) : waitHistogram.get(i);
+            histogramTotal += histogram[i];
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("============== Day ").append(day).append(reset ? " Summary" : " Summary (partial)").append(" ==============\n");
+        sb.append("  Purchases: ").append(dayPurchases).append("\n");
+        sb.append("  Buyer wait: avg ").append(histogramTotal == 0 ? 0 : dayWait / histogramTotal)
+          .append(" ticks, p99 ").append(percentile(histogram, histogramTotal, 0.99))
+          .append(" ticks, max ").append(dayMaxWait).append(" ticks (incl. ").append(dayUnserved).append(" unserved)\n");
+        sb.append("  Orders not served as asked: balked ").append(dayBalked).append(", timed out ").append(dayTimedOut)
+          .append(" -> substituted ").append(daySubstituted).append(", abandoned ").append(dayAbandoned).append("\n");
+        sb.append("  Deliveries: ").append(dayDeliveries).append(" (").append(dayAnimalsDelivered).append(" animals)\n");
+        sb.append("  Animals stocked in fields: ").append(dayAnimalsStocked).append("\n");
+        if (stockSamples > 0) {
+            sb.append("  Field stock: avg ").append(fieldStockSum / stockSamples)
+              .append(", min ").append(minFieldStock).append(", max ").append(maxFieldStock).append("\n");
+            sb.append("  Enclosure stock: avg ").append(enclosureStockSum / stockSamples).append("\n");
+        }
+        System.out.print(sb);
+
+        if (reset) {
+            stockSamples = 0;
+            fieldStockSum = 0;
+            minFieldStock = Integer.MAX_VALUE;
+            maxFieldStock = 0;
+            enclosureStockSum = 0;
+        }
+    }
+
+    /** Wait (in ticks) below which the given fraction of buyer waits fall. The last bucket means "at least". */
+    static long percentile(long[] histogram, long total, double fraction) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= target) {
+                return i;
+            }
+        }
+        return histogram.length - 1;
+    }
+}
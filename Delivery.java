@@ -1,22 +1,20 @@
 import java.util.*;
 
+/**
+ * Drives one AnimalSupplier: every tick it asks the supplier for a shipment and publishes it to the
+ * enclosure's ingest queue. Many Delivery threads can feed the same enclosure concurrently.
+ */
 public class Delivery implements Runnable {
+    private final AnimalSupplier supplier;
     private final Enclosure enclosure;
     private final TickSystem tickSystem;
-    private final Random rand;
-    ArrayList<String> animals;
+    private final DailyStats dailyStats;
 
-    private int lastDeliveryTick = -100; // Ensures first delivery happens early
-    private int nextDeliveryThreshold; // Randomized delivery threshold
-    private final double deliveryProbabilty;;
-
-    public Delivery(Enclosure enclosure, TickSystem tickSystem, ArrayList<String> animals, double deliveryProbabilty) {
+    public Delivery(AnimalSupplier supplier, Enclosure enclosure, TickSystem tickSystem, DailyStats dailyStats) {
+        this.supplier = supplier;
         this.enclosure = enclosure;
         this.tickSystem = tickSystem;
-        this.rand = new Random();
-        this.nextDeliveryThreshold = 80 + rand.nextInt(40); // First threshold between 80-120 ticks
-        this.animals = animals;
-        this.deliveryProbabilty = deliveryProbabilty;
+        this.dailyStats = dailyStats;
     }
 
     @Override
@@ -25,18 +23,12 @@ public class Delivery implements Runnable {
             try {
                 tickSystem.waitForNextTick(); // Wait for next tick
                 
-                int currentTick = tickSystem.getCurrentTick();
-                boolean shouldDeliver = (rand.nextDouble() < deliveryProbabilty) || (currentTick - lastDeliveryTick >= nextDeliveryThreshold);
+                long currentTick = tickSystem.getCurrentTick();
+                Map<String, Integer> newDelivery = supplier.nextShipment(currentTick);
 
-                if (shouldDeliver) {
-                    Map<String, Integer> newDelivery = createRandomDelivery(10);
-                    enclosure.storeFromDelivery(newDelivery);
-                    
-                    lastDeliveryTick = currentTick; 
-                    
-                    // Set new random threshold between 80-120 ticks
-                    nextDeliveryThreshold = 80 + rand.nextInt(40);
-                    System.out.println("     "+currentTick + " " + Thread.currentThread().getId() + " Next_delivery_threshold : " + nextDeliveryThreshold + " ticks");
+                if (!newDelivery.isEmpty()) {
+                    enclosure.submitDelivery(newDelivery);
+                    dailyStats.recordDelivery(newDelivery.values().stream().mapToInt(Integer::intValue).sum());
                 }
 
             } catch (InterruptedException e) {
@@ -44,29 +36,4 @@ public class Delivery implements Runnable {
             }
         }
     }
-
-    /**
-     * Creates a random distribution for a total number of animals.
-     * @param totalAnimals
-     * @return Map with animals (adding up to 10)
-     */
-    private Map<String, Integer> createRandomDelivery(int totalAnimals) {
-        ArrayList<String> animalList = this.animals;
-        Collections.shuffle(animalList);
-    
-        Map<String, Integer> newDelivery = new HashMap<>();
-        int spaceLeft = totalAnimals;
-    
-        for (int i = 0; i < animalList.size(); i++) {
-            if (spaceLeft == 0) break; // Stop when all animals are assigned
-    
-            int maxAllocation = Math.min(spaceLeft, 3); // Max 3 per type
-            int newEntrySize = (i == animalList.size() - 1) ? spaceLeft : 1 + rand.nextInt(maxAllocation); // Last type gets all remaining space
-            newDelivery.put(animalList.get(i), newEntrySize);
-            spaceLeft -= newEntrySize;
-        }
-    
-        return newDelivery;
-    }
-
 }
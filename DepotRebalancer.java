@@ -0,0 +1,63 @@
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional thread that evens out stock between depots (enclosures). Every rebalanceInterval ticks
+ * it moves half the difference from the fullest depot to the emptiest one, if that difference is
+ * bigger than rebalanceThreshold. The animals are taken out first and stored after the travel time,
+ * through the ingest queue, so it never holds two enclosure locks at once.
+ */
+public class DepotRebalancer implements Runnable {
+    private final List<Enclosure> enclosures;
+    private final TickSystem tickSystem;
+    private final int rebalanceInterval;
+    private final int rebalanceThreshold;
+
+    public static final String ANSI_RESET = "\u001B[0m";
+    public static final String ANSI_BLUE = "\u001B[36m";
+
+    public DepotRebalancer(List<Enclosure> enclosures, TickSystem tickSystem, int rebalanceInterval, int rebalanceThreshold) {
+        this.enclosures = enclosures;
+        this.tickSystem = tickSystem;
+        this.rebalanceInterval = rebalanceInterval;
+        this.rebalanceThreshold = rebalanceThreshold;
+    }
+
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                tickSystem.waitForNTicks(rebalanceInterval);
+                rebalance();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void rebalance() throws InterruptedException {
+        Enclosure fullest = enclosures.stream().max(Comparator.comparingInt(Enclosure::getStockCount)).orElseThrow();
+        Enclosure emptiest = enclosures.stream().min(Comparator.comparingInt(Enclosure::getStockCount)).orElseThrow();
+
+        int difference = fullest.getStockCount() - emptiest.getStockCount();
+        if (fullest == emptiest || difference <= rebalanceThreshold) {
+            return;
+        }
+
+        Map<String, Integer> transfer = fullest.takeForTransfer(difference / 2);
+        if (transfer.isEmpty()) {
+            return; // A farmer got there first
+        }
+        System.out.println("     "+ANSI_BLUE+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " Rebalancing " + transfer + " from " + fullest.getName() + " to " + emptiest.getName()+ANSI_RESET);
+
+        // Same travel rule as the farmers: 10 ticks + distance
+        try {
+            tickSystem.waitForNTicks(10 + fullest.distanceTo(emptiest.getPosition()));
+        } catch (InterruptedException e) {
+            fullest.submitDelivery(transfer); // Shutting down mid-trip, don't lose the animals
+            throw e;
+        }
+        emptiest.submitDelivery(transfer);
+    }
+}
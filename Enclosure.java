@@ -1,126 +1,215 @@
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class Enclosure {
+    private final String name;
+    private final int position; // Position on the farm, same scale as Field positions
     private final Map<String, Integer> animals = new HashMap<>();
     private final Map<String, Field> fields;
+    private final LoadingPolicy loadingPolicy;
+
+    // Total animals in the enclosure. Only written under the lock, but farmers read it
+    // without locking to pick a depot, so they don't queue on every enclosure to compare them
+    private final AtomicInteger totalAnimals = new AtomicInteger(0);
+
+    // Shipments published by suppliers, waiting to be merged into animals. Suppliers never touch
+    // the enclosure lock; the per-tick flush or the next farmer to load drains the whole batch
+    private final Queue<Map<String, Integer>> ingestQueue = new ConcurrentLinkedQueue<>();
     
     // Lock for all enclosure operations
-    private final ReentrantLock lock = new ReentrantLock(); // fair: true
+    private final ProfiledLock lock; // not fair
     
     // Condition used to signal farmers that animals are now available
-    private final Condition notEmpty = lock.newCondition();
+    private final Condition notEmpty;
     private final TickSystem tickSystem;
+    // How long a farmer waits at an empty depot before going to look at the others
+    private static final int MAX_EMPTY_WAIT_TICKS = 10;
     public static final String ANSI_RESET = "\u001B[0m"; 
     public static final String ANSI_YELLOW = "\u001B[33m";
     public static final String ANSI_BLUE = "\u001B[36m";
 
-    public Enclosure(Map<String, Field> fields, TickSystem tickSystem) {
+    public Enclosure(String name, int position, Map<String, Field> fields, LoadingPolicy loadingPolicy, TickSystem tickSystem, LockProfiler lockProfiler) {
+        this.name = name;
+        this.position = position;
         this.fields = fields;
+        this.loadingPolicy = loadingPolicy;
         this.tickSystem = tickSystem; 
+        this.lock = lockProfiler.newLock(name, false);
+        this.notEmpty = lock.newCondition();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getStockCount() {
+        return totalAnimals.get(); // No lock needed
+    }
+
+    public int distanceTo(int otherPosition) {
+        return Math.abs(position - otherPosition);
     }
 
     private boolean hasNoAnimals() {
-        return animals.values().stream().allMatch(count -> count == 0);
+        return totalAnimals.get() == 0;
     }
 
-    // Store animals from a delivery
-    public void storeFromDelivery(Map<String, Integer> delivery) throws InterruptedException{
-        lock.lock();
-        try {
+    // Publish a shipment to the ingest queue. Enqueue only, so suppliers neither contend for the
+    // lock nor barge ahead of farmers already queued on it
+    public void submitDelivery(Map<String, Integer> delivery) {
+        ingestQueue.offer(delivery);
+    }
+
+    /**
+     * Merge any pending shipments into the enclosure if the lock is free. Called once per tick
+     * from the TickSystem; if a farmer holds the lock it drains the queue itself, otherwise the
+     * next tick retries. Either way a shipment waits about a tick at most.
+     */
+    public void drainIngest() {
+        // Re-check after unlocking: a shipment may have been offered while we held the lock
+        while (!ingestQueue.isEmpty() && lock.tryLock()) {
+            try {
+                drainIngestLocked();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Must hold the lock
+    private void drainIngestLocked() {
+        FarmEvents.Shipment event = new FarmEvents.Shipment();
+        event.begin();
+        int shipments = 0;
+        int drained = 0;
+        Map<String, Integer> batch = event.isEnabled() ? new HashMap<>() : null; // Only built when recording
+        Map<String, Integer> delivery;
+        while ((delivery = ingestQueue.poll()) != null) {
             for (Map.Entry<String, Integer> entry : delivery.entrySet()) {
                 String type = entry.getKey();
                 int count = entry.getValue();
                 animals.put(type, animals.getOrDefault(type, 0) + count);
+                drained += count;
+                if (batch != null) {
+                    batch.merge(type, count, Integer::sum);
+                }
             }
-            System.out.println("     "+ANSI_BLUE+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " Deposit of animals from delivery : " + animals+ANSI_RESET);
-            // Signal that enclosure is no longer empty
-            notEmpty.signalAll();
-        } finally {
-            lock.unlock();
+            shipments++;
+        }
+        if (shipments == 0) {
+            return;
+        }
+        totalAnimals.addAndGet(drained);
+        System.out.println("     "+ANSI_BLUE+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " Deposit of " + shipments + " deliveries into " + name + " : " + animals+ANSI_RESET);
+        // Signal that enclosure is no longer empty
+        notEmpty.signalAll();
+
+        // batch is null if recording started after isEnabled() was checked, skip the event rather than throw under the lock
+        if (batch != null && event.shouldCommit()) {
+            event.tick = tickSystem.getCurrentTick();
+            event.enclosure = name;
+            event.species = batch.toString();
+            event.shipments = shipments;
+            event.count = drained;
+            event.commit();
         }
     }
 
-// Farmer loads animals into their trailer
+// Farmer loads animals into their trailer, returns the trailer with the new animals added
+// (unchanged if the enclosure stayed empty for MAX_EMPTY_WAIT_TICKS)
 public Map<String, Integer> loadAnimalsIntoTrailer(Map<String, Integer> existingTrailer, int capacity, String farmerName) throws InterruptedException {
+    FarmEvents.TrailerLoad event = new FarmEvents.TrailerLoad();
+    event.begin();
     lock.lock();
     try {
-        System.out.println("     "  + tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " "  + farmerName + " has arrived at enclosure with capacity of: " + capacity);
-        System.out.println("     "+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " "  + "Enclosure has: " + animals);
+        System.out.println("     "  + tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " "  + farmerName + " has arrived at " + name + " with capacity of: " + capacity);
+        drainIngestLocked(); // Pick up anything suppliers published while we were queueing
+        System.out.println("     "+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " "  + name + " has: " + animals);
 
+        // Don't wait forever: another depot may have stock while this one stays empty
+        long nanosLeft = TimeUnit.MILLISECONDS.toNanos((long) MAX_EMPTY_WAIT_TICKS * tickSystem.getTickDuration());
         while (hasNoAnimals()) {
+            if (nanosLeft <= 0) {
+                System.out.println("     " + tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " "  +  "Farmer " + farmerName + " gave up waiting at " + name);
+                return new LinkedHashMap<>(existingTrailer); // Empty load, the farmer picks a depot again
+            }
             System.out.println("     " + tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " "  +  "Farmer " + farmerName + " is waiting for animals...");
-            notEmpty.await();
+            nanosLeft = notEmpty.awaitNanos(nanosLeft);
+            drainIngestLocked();
         }
 
 
-        // Convert enclosure animals into a list and sort based on priority
-        List<Map.Entry<String, Integer>> sortedAnimals = new ArrayList<>(animals.entrySet());
-
-        sortedAnimals.sort((a, b) -> {
-            Field fieldA = fields.get(a.getKey());
-            Field fieldB = fields.get(b.getKey());
-
-            // First priority: More buyers waiting
-            int buyerDiff = Integer.compare(fieldB.getBuyersWaiting(), fieldA.getBuyersWaiting());
-            if (buyerDiff != 0) return buyerDiff;
-
-            // Second priority: Lower stock in the field
-            return Integer.compare(fieldA.getCount(), fieldB.getCount());
-        });
-
+        // Ask the loading policy what to take, then clamp it to what is actually here and to the space left
+        Map<String, Integer> chosen = loadingPolicy.chooseLoad(Collections.unmodifiableMap(animals), fields, capacity);
         Map<String, Integer> loadedAnimals = new LinkedHashMap<>();
         int spaceLeft = capacity;
+        for (Map.Entry<String, Integer> entry : chosen.entrySet()) {
+            String type = entry.getKey();
+            int available = animals.getOrDefault(type, 0);
+            int numToTake = Math.min(spaceLeft, Math.min(available, entry.getValue()));
+            if (numToTake <= 0) continue;
 
-        // Take at most 4 from the highest priority animal
-        if (!sortedAnimals.isEmpty() && spaceLeft > 0) {
-            Map.Entry<String, Integer> firstChoice = sortedAnimals.get(0);
-            int numToTake = Math.min(4, Math.min(spaceLeft, firstChoice.getValue()));
-            loadedAnimals.put(firstChoice.getKey(), numToTake);
-            animals.put(firstChoice.getKey(), animals.get(firstChoice.getKey()) - numToTake);
+            loadedAnimals.put(type, numToTake);
+            animals.put(type, available - numToTake); // Subtract from enclosure
             spaceLeft -= numToTake;
-            sortedAnimals.remove(firstChoice);
         }
 
-        // Take at most 3 from the second-highest priority animal
-        if (!sortedAnimals.isEmpty() && spaceLeft > 0) {
-            Map.Entry<String, Integer> secondChoice = sortedAnimals.get(0);
-            int numToTake = Math.min(3, Math.min(spaceLeft, secondChoice.getValue()));
-            loadedAnimals.put(secondChoice.getKey(), numToTake);
-            animals.put(secondChoice.getKey(), animals.get(secondChoice.getKey()) - numToTake);
-            spaceLeft -= numToTake;
-            sortedAnimals.remove(secondChoice);
-        }
+        totalAnimals.addAndGet(spaceLeft - capacity); // Everything that went into the trailer
 
-        // Evenly distribute remaining space among other animals
-        Iterator<Map.Entry<String, Integer>> it = sortedAnimals.iterator();
-        while (spaceLeft > 0 && it.hasNext()) {
-            Map.Entry<String, Integer> entry = it.next();
-            String type = entry.getKey();
-            int available = entry.getValue();
-            
-            if (available > 0) { // Only take if there are animals left
-                int numToTake = Math.min(spaceLeft, available); // Take up to the remaining space
-
-                loadedAnimals.put(type, loadedAnimals.getOrDefault(type, 0) + numToTake);
-                animals.put(type, available - numToTake); // Subtract from enclosure
-                spaceLeft -= numToTake;
-            }
-            
-            // Remove entry if all animals have been taken
-            if (animals.get(type) == 0) {
-                it.remove();
-            }
-        }
+        System.out.println("     "+ANSI_YELLOW + tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " +  farmerName + " collected_animals from " + name + " : " + loadedAnimals+ANSI_RESET);
 
+        if (event.shouldCommit()) {
+            event.tick = tickSystem.getCurrentTick();
+            event.farmer = farmerName;
+            event.enclosure = name;
+            event.species = loadedAnimals.toString();
+            event.capacity = capacity;
+            event.loaded = capacity - spaceLeft;
+            event.commit();
+        }
 
-        System.out.println("     "+ANSI_YELLOW + tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " +  farmerName + " collected_animals : " + loadedAnimals+ANSI_RESET);
-        return loadedAnimals;
+        // Keep whatever the farmer still had on board from the last trip
+        Map<String, Integer> trailer = new LinkedHashMap<>(existingTrailer);
+        loadedAnimals.forEach((type, count) -> trailer.merge(type, count, Integer::sum));
+        return trailer;
     } finally {
         lock.unlock();
     }
 }
+
+    // Take up to maxAnimals out of the enclosure to move them to another depot (does not wait if empty)
+    public Map<String, Integer> takeForTransfer(int maxAnimals) {
+        lock.lock();
+        try {
+            Map<String, Integer> taken = new HashMap<>();
+            int spaceLeft = maxAnimals;
+            Iterator<Map.Entry<String, Integer>> it = animals.entrySet().iterator();
+            while (spaceLeft > 0 && it.hasNext()) {
+                Map.Entry<String, Integer> entry = it.next();
+                int numToTake = Math.min(spaceLeft, entry.getValue());
+                if (numToTake > 0) {
+                    taken.put(entry.getKey(), numToTake);
+                    spaceLeft -= numToTake;
+                }
+                if (entry.getValue() == numToTake) {
+                    it.remove();
+                } else {
+                    entry.setValue(entry.getValue() - numToTake);
+                }
+            }
+            totalAnimals.addAndGet(spaceLeft - maxAnimals);
+            return taken;
+        } finally {
+            lock.unlock();
+        }
+    }
     
 
 }
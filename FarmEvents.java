@@ -0,0 +1,147 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Custom JDK Flight Recorder events for the farm, so simulator stalls can be lined up with
+ * monitor contention, GC and allocation in JDK Mission Control.
+ *
+ * Usage pattern (cheap when recording is off, the fields are only filled in if the event is kept):
+ *
+ *     FarmEvents.Purchase event = new FarmEvents.Purchase();
+ *     event.begin();
+ *     ... do the work ...
+ *     if (event.shouldCommit()) { event.species = ...; event.commit(); }
+ *
+ * Record with: java -XX:StartFlightRecording=filename=farm.jfr FarmSimulation
+ */
+public final class FarmEvents {
+
+    private FarmEvents() {
+    }
+
+    @Name("farm.Purchase")
+    @Label("Buyer Purchase")
+    @Category({"Farm Simulation", "Buyer"})
+    @Description("A buyer waiting for and buying one animal from a field, or giving up after running out of patience")
+    public static class Purchase extends Event {
+        @Label("Tick")
+        public long tick;
+
+        @Label("Buyer")
+        public String buyer;
+
+        @Label("Species")
+        public String species;
+
+        @Label("Bought")
+        @Description("False if the buyer gave up waiting")
+        public boolean bought;
+
+        @Label("Waited Ticks")
+        public long waitedTicks;
+
+        @Label("Remaining In Field")
+        public int remaining;
+    }
+
+    @Name("farm.FarmerTrip")
+    @Label("Farmer Trip")
+    @Category({"Farm Simulation", "Farmer"})
+    @Description("A farmer travelling from the enclosure to the fields and stocking them")
+    public static class FarmerTrip extends Event {
+        @Label("Tick")
+        public long tick;
+
+        @Label("Farmer")
+        public String farmer;
+
+        @Label("Animals Carried")
+        public int animalsCarried;
+
+        @Label("Animals Left In Trailer")
+        public int animalsLeft;
+    }
+
+    @Name("farm.Stock")
+    @Label("Field Stocking")
+    @Category({"Farm Simulation", "Farmer"})
+    @Description("A farmer stocking a field while holding its lock")
+    public static class Stock extends Event {
+        @Label("Tick")
+        public long tick;
+
+        @Label("Farmer")
+        public String farmer;
+
+        @Label("Species")
+        public String species;
+
+        @Label("Requested")
+        public int requested;
+
+        @Label("Stocked")
+        public int stocked;
+
+        @Label("Count In Field")
+        public int fieldCount;
+    }
+
+    @Name("farm.TrailerLoad")
+    @Label("Trailer Load")
+    @Category({"Farm Simulation", "Enclosure"})
+    @Description("A farmer loading animals from an enclosure, including time waiting for animals")
+    public static class TrailerLoad extends Event {
+        @Label("Tick")
+        public long tick;
+
+        @Label("Farmer")
+        public String farmer;
+
+        @Label("Enclosure")
+        public String enclosure;
+
+        @Label("Species")
+        public String species;
+
+        @Label("Capacity")
+        public int capacity;
+
+        @Label("Loaded")
+        public int loaded;
+    }
+
+    @Name("farm.Shipment")
+    @Label("Delivery")
+    @Category({"Farm Simulation", "Enclosure"})
+    @Description("A batch of shipments drained from the ingest queue into an enclosure")
+    public static class Shipment extends Event {
+        @Label("Tick")
+        public long tick;
+
+        @Label("Enclosure")
+        public String enclosure;
+
+        @Label("Species")
+        public String species;
+
+        @Label("Shipments")
+        public int shipments;
+
+        @Label("Count")
+        public int count;
+    }
+
+    @Name("farm.Tick")
+    @Label("Tick")
+    @Category({"Farm Simulation"})
+    @Description("The simulation clock advancing one tick")
+    @StackTrace(false)
+    public static class Tick extends Event {
+        @Label("Tick")
+        public long tick;
+    }
+}
@@ -19,6 +19,15 @@ public class FarmSimulation {
 
         Properties configProps = loadConfig("farmConfig.properties"); // Load properties file
 
+        runSimulation(configProps, SIMULATION_RUNTIME_MS, true);
+    }
+
+    /**
+     * Reads the config, starts all the threads, lets the simulation run for runtimeMs and shuts it down.
+     * When interactive is false it starts straight away instead of waiting for ENTER (used by LoadingPolicyBenchmark).
+     * @return the stats of the day in progress when the simulation stopped
+     */
+    static DailyStats runSimulation(Properties configProps, long runtimeMs, boolean interactive) {
         Random rand = new Random();
         int numFarmers = getIntProperty(configProps, "numFarmers", 3);
         int numFields = getIntProperty(configProps, "numFields", 5);
@@ -26,10 +35,22 @@ public class FarmSimulation {
         int fieldCapacity = getIntProperty(configProps, "fieldCapacity", 10);
         int initialFieldCount = getIntProperty(configProps, "initialFieldCount", 5);
         int tickDuration = getIntProperty(configProps, "tickDuration", 100);
+        int ticksPerDay = getIntProperty(configProps, "ticksPerDay", 1000);
         int breakDuration = getIntProperty(configProps, "breakDuration", 150);
         int lowerBoundBreakInterval = getIntProperty(configProps, "lowerBoundBreakInterval", 200);
         int upperBoundBreakInterval = getIntProperty(configProps, "upperBoundBreakInterval", 300);
         double deliveryProbability = getDoubleProperty(configProps, "deliveryProbability", 0.01);
+        int lockHoldBudget = getIntProperty(configProps, "lockHoldBudget", 50);
+        int numEnclosures = getIntProperty(configProps, "numEnclosures", 1);
+        int numSuppliers = getIntProperty(configProps, "numSuppliers", numEnclosures);
+        int rebalanceInterval = getIntProperty(configProps, "rebalanceInterval", 0);
+        int rebalanceThreshold = getIntProperty(configProps, "rebalanceThreshold", 10);
+        String loadingPolicyName = configProps.getProperty("loadingPolicy", "tiered");
+        List<Integer> trailerCapacities = getIntListProperty(configProps, "trailerCapacities", List.of(10));
+        List<Double> trailerSpeeds = getDoubleListProperty(configProps, "trailerSpeeds", List.of(1.0));
+        int buyerPatience = getIntProperty(configProps, "buyerPatience", 0);
+        int balkQueueLength = getIntProperty(configProps, "balkQueueLength", 0);
+        boolean allowSubstitution = Boolean.parseBoolean(configProps.getProperty("allowSubstitution", "false").trim());
 
         if (initialFieldCount > fieldCapacity) {
             System.err.println("Initial field count can't be bigger than capacity. Using defaults 5 and 10 respectively.");
@@ -45,6 +66,55 @@ public class FarmSimulation {
             System.err.println("Delivery probability must be between 0 and 1. Using default 0.01.");
             deliveryProbability = 0.01;
         }
+        if (ticksPerDay < 1) {
+            System.err.println("A day must be at least 1 tick long. Using default 1000.");
+            ticksPerDay = 1000;
+        }
+        if (lockHoldBudget < 1) {
+            System.err.println("Lock hold budget must be at least 1 tick. Using default 50.");
+            lockHoldBudget = 50;
+        }
+        if (numEnclosures < 1) {
+            System.err.println("There must be at least 1 enclosure. Using default 1.");
+            numEnclosures = 1;
+        }
+        if (numSuppliers < 1) {
+            System.err.println("There must be at least 1 supplier. Using 1 per enclosure.");
+            numSuppliers = numEnclosures;
+        }
+        if (numSuppliers < numEnclosures) {
+            // Suppliers are assigned round-robin, so the extra enclosures would never get a shipment
+            System.err.println("There must be at least 1 supplier per enclosure. Using " + numEnclosures + " suppliers.");
+            numSuppliers = numEnclosures;
+        }
+        if (rebalanceInterval < 0) {
+            System.err.println("Rebalance interval can't be negative. Using default 0 (no rebalancing).");
+            rebalanceInterval = 0;
+        }
+        LoadingPolicy loadingPolicy;
+        try {
+            loadingPolicy = LoadingPolicy.fromName(loadingPolicyName);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage() + ". Using default tiered.");
+            loadingPolicyName = "tiered";
+            loadingPolicy = new LoadingPolicy.Tiered();
+        }
+        if (trailerCapacities.stream().anyMatch(c -> c < 1)) {
+            System.err.println("Trailer capacities must be at least 1. Using default 10.");
+            trailerCapacities = List.of(10);
+        }
+        if (trailerSpeeds.stream().anyMatch(s -> s <= 0)) {
+            System.err.println("Trailer speeds must be positive. Using default 1.0.");
+            trailerSpeeds = List.of(1.0);
+        }
+        if (buyerPatience < 0) {
+            System.err.println("Buyer patience can't be negative. Using default 0 (wait forever).");
+            buyerPatience = 0;
+        }
+        if (balkQueueLength < 0) {
+            System.err.println("Balk queue length can't be negative. Using default 0 (never balk).");
+            balkQueueLength = 0;
+        }
         int breakRange = (upperBoundBreakInterval - lowerBoundBreakInterval) + 1;
 
         // Showing loaded config
@@ -55,21 +125,39 @@ public class FarmSimulation {
         System.out.println("  Field Capacity: " + fieldCapacity);
         System.out.println("  Initial Field Count: " + initialFieldCount);
         System.out.println("  Tick Duration: " + tickDuration + " ms");
+        System.out.println("  Ticks Per Day: " + ticksPerDay);
         System.out.println("  Break Duration: " + breakDuration + " ticks");
         System.out.println("  Break Interval lower bound: " + lowerBoundBreakInterval + " ticks");
         System.out.println("  Break Interval upper bound: " + upperBoundBreakInterval + " ticks");
         System.out.println("  Delivery Probability: " + deliveryProbability + " ticks");
+        System.out.println("  Lock Hold Budget: " + lockHoldBudget + " ticks");
+        System.out.println("  Enclosures: " + numEnclosures);
+        System.out.println("  Suppliers: " + numSuppliers);
+        System.out.println("  Rebalance Interval: " + (rebalanceInterval == 0 ? "off" : rebalanceInterval + " ticks"));
+        System.out.println("  Rebalance Threshold: " + rebalanceThreshold + " animals");
+        System.out.println("  Loading Policy: " + loadingPolicyName);
+        System.out.println("  Trailer Capacities: " + trailerCapacities);
+        System.out.println("  Trailer Speeds: " + trailerSpeeds);
+        System.out.println("  Buyer Patience: " + (buyerPatience == 0 ? "unlimited" : buyerPatience + " ticks"));
+        System.out.println("  Balk Queue Length: " + (balkQueueLength == 0 ? "never balk" : balkQueueLength + " buyers"));
+        System.out.println("  Substitution: " + (allowSubstitution ? "on" : "off"));
 
 
-        try (Scanner scanner = new Scanner(System.in)) {
-            System.out.println("Press ENTER to start the simulation!");
-            scanner.nextLine(); 
-        } catch (Exception e) {
-            System.err.println("Error occurred while reading input. Exiting simulation. Please try again.");
+        if (interactive) {
+            try (Scanner scanner = new Scanner(System.in)) {
+                System.out.println("Press ENTER to start the simulation!");
+                scanner.nextLine(); 
+            } catch (Exception e) {
+                System.err.println("Error occurred while reading input. Exiting simulation. Please try again.");
+            }
         }
 
-        TickSystem tickSystem = new TickSystem(1000, tickDuration); // 1000 ticks/day, 100ms per tick
+        TickSystem tickSystem = new TickSystem(ticksPerDay, tickDuration); // 1000 ticks/day, 100ms per tick by default
         tickSystem.start(); // Start ticking
+
+        // Every Field/Enclosure lock is created through the profiler so we can report contention at the end
+        LockProfiler lockProfiler = new LockProfiler(tickSystem, lockHoldBudget);
+        lockProfiler.start();
         
         // =========================== Fields ===========================
         // Create the fields with initial values
@@ -81,24 +169,56 @@ public class FarmSimulation {
             fields = new ArrayList<>(fields.subList(0, numFields));
         }
         
+        // Fields are laid out in a row, field i at position i
         for (int i=0; i < numFields; i++) {
-            Field newField = new Field(fields.get(i), initialFieldCount, tickSystem, fieldCapacity);
+            Field newField = new Field(fields.get(i), initialFieldCount, tickSystem, fieldCapacity, i, lockProfiler);
             fieldsMap.put(fields.get(i), newField);
         }
         
-        // =========================== Enclosure ===========================
-        Enclosure enclosure = new Enclosure(fieldsMap, tickSystem);
+        // =========================== Enclosures ===========================
+        // Depots are spread evenly along the row of fields, each in the middle of its own stretch
+        List<Enclosure> enclosures = new ArrayList<>();
+        for (int i=0; i < numEnclosures; i++) {
+            int position = ((2 * i + 1) * numFields) / (2 * numEnclosures);
+            Enclosure enclosure = new Enclosure("Enclosure(" + (i+1) + ")", position, fieldsMap, loadingPolicy, tickSystem, lockProfiler);
+            tickSystem.addTickListener(tick -> enclosure.drainIngest()); // Flush any shipments that missed the lock
+            enclosures.add(enclosure);
+        }
+
+        // =========================== Daily Stats ===========================
+        // Rolls over (prints and resets) at every day boundary, so memory stays constant on long runs
+        DailyStats dailyStats = new DailyStats(tickSystem, fieldsMap, enclosures);
+        tickSystem.addTickListener(dailyStats::onTick);
 
         // =========================== Delivery ===========================
-        Delivery delivery = new Delivery(enclosure, tickSystem, fields, deliveryProbability);
-        Thread deliveryThread = new Thread(delivery, "Delivery-Thread");
-        deliveryThread.start();
+        // One Delivery thread per supplier, suppliers are spread round-robin over the enclosures
+        List<AnimalSupplier> suppliers = createSuppliers(configProps, numSuppliers, fields, deliveryProbability);
+        List<Thread> deliveryThreads = new ArrayList<>();
+        for (int i=1; i <= numSuppliers; i++) {
+            AnimalSupplier supplier = suppliers.get(i-1);
+            Delivery delivery = new Delivery(supplier, enclosures.get((i-1) % numEnclosures), tickSystem, dailyStats);
+            Thread deliveryThread = new Thread(delivery, supplier.getName());
+            deliveryThreads.add(deliveryThread);
+            deliveryThread.start();
+        }
+
+        Thread rebalancerThread = null;
+        if (rebalanceInterval > 0 && numEnclosures > 1) {
+            DepotRebalancer rebalancer = new DepotRebalancer(enclosures, tickSystem, rebalanceInterval, rebalanceThreshold);
+            rebalancerThread = new Thread(rebalancer, "Depot-Rebalancer");
+            rebalancerThread.start();
+        }
         
         // =========================== Farmers ===========================
+        // Trailer capacities and speeds are assigned from their lists in turn, wrapping around
         List<Thread> farmerThreads = new ArrayList<>();
         for (int i=1; i <= numFarmers; i++) {
             int randomBreakInterval = lowerBoundBreakInterval + rand.nextInt(breakRange);
-            Farmer singleFarmer = new Farmer("Farmer("+i+")", enclosure, fieldsMap, tickSystem, breakDuration, randomBreakInterval);
+            Enclosure startingEnclosure = enclosures.get((i-1) % numEnclosures); // Spread farmers over the depots
+            int trailerCapacity = trailerCapacities.get((i-1) % trailerCapacities.size());
+            double trailerSpeed = trailerSpeeds.get((i-1) % trailerSpeeds.size());
+            Farmer singleFarmer = new Farmer("Farmer("+i+")", enclosures, startingEnclosure, fieldsMap, tickSystem, dailyStats,
+                    trailerCapacity, trailerSpeed, breakDuration, randomBreakInterval);
             Thread farmerThread = new Thread(singleFarmer, "Farmer("+i+")");
             farmerThreads.add(farmerThread);
             farmerThread.start();
@@ -108,7 +228,8 @@ public class FarmSimulation {
         List<Thread> buyerThreads = new ArrayList<>();
 
         for (int i = 1; i <= numBuyers; i++) {
-            Buyer buyer = new Buyer("Buyer(" + i +")", fieldsMap, tickSystem); // Each buyer gets a unique ID
+            long patienceTicks = buyerPatience == 0 ? Field.WAIT_FOREVER : buyerPatience;
+            Buyer buyer = new Buyer("Buyer(" + i +")", fieldsMap, tickSystem, dailyStats, patienceTicks, balkQueueLength, allowSubstitution); // Each buyer gets a unique ID
             Thread buyerThread = new Thread(buyer, "Buyer(" + i+")");
             buyerThreads.add(buyerThread);
             buyerThread.start(); // Start the buyer thread
@@ -116,11 +237,11 @@ public class FarmSimulation {
         
 
         /** The current thread (FarmSimualtion main) will sleep while the other threads
-         * keep running in the background. The main() thread will be sleeping for SIMULATION_RUNTIME_MS
+         * keep running in the background. The main() thread will be sleeping for runtimeMs
          * milliseconds.
          */
         try {
-            Thread.sleep(SIMULATION_RUNTIME_MS);
+            Thread.sleep(runtimeMs);
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
@@ -129,7 +250,12 @@ public class FarmSimulation {
         for (Thread farmerThread : farmerThreads) {
             farmerThread.interrupt();
         }
-        deliveryThread.interrupt();
+        for (Thread deliveryThread : deliveryThreads) {
+            deliveryThread.interrupt();
+        }
+        if (rebalancerThread != null) {
+            rebalancerThread.interrupt();
+        }
         for (Thread buyerThread : buyerThreads) { // Interrupt all buyer threads
             buyerThread.interrupt();
         }
@@ -141,7 +267,12 @@ public class FarmSimulation {
             for (Thread farmerThread : farmerThreads) { // Join all buyer threads
                 farmerThread.join();
             }
-            deliveryThread.join();
+            for (Thread deliveryThread : deliveryThreads) {
+                deliveryThread.join();
+            }
+            if (rebalancerThread != null) {
+                rebalancerThread.join();
+            }
             for (Thread buyerThread : buyerThreads) { // Join all buyer threads
                 buyerThread.join();
             }
@@ -149,6 +280,12 @@ public class FarmSimulation {
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
+
+        tickSystem.shutdown();
+        dailyStats.printSummary();
+        lockProfiler.shutdown();
+        lockProfiler.printReport();
+        return dailyStats;
     }
 
     public static void showWelcomeScreen() {
@@ -167,6 +304,53 @@ public class FarmSimulation {
         return props;
     }
 
+    /**
+     * Suppliers default to the original delivery behaviour (10 animals of every species,
+     * deliveryProbability per tick, at least every 80-120 ticks). Each can be overridden with
+     * supplier.<n>.shipmentSize, .species (comma separated), .deliveryProbability, .minInterval, .maxInterval
+     */
+    private static List<AnimalSupplier> createSuppliers(Properties props, int numSuppliers, List<String> fields, double deliveryProbability) {
+        List<AnimalSupplier> suppliers = new ArrayList<>();
+        for (int i=1; i <= numSuppliers; i++) {
+            String prefix = "supplier." + i + ".";
+            int shipmentSize = props.containsKey(prefix + "shipmentSize") ? getIntProperty(props, prefix + "shipmentSize", 10) : 10;
+            double probability = props.containsKey(prefix + "deliveryProbability") ? getDoubleProperty(props, prefix + "deliveryProbability", deliveryProbability) : deliveryProbability;
+            int minInterval = props.containsKey(prefix + "minInterval") ? getIntProperty(props, prefix + "minInterval", 80) : 80;
+            int maxInterval = props.containsKey(prefix + "maxInterval") ? getIntProperty(props, prefix + "maxInterval", 120) : 120;
+
+            List<String> species = new ArrayList<>();
+            String speciesList = props.getProperty(prefix + "species");
+            if (speciesList != null) {
+                for (String animal : speciesList.split(",")) {
+                    if (fields.contains(animal.trim())) {
+                        species.add(animal.trim());
+                    } else {
+                        System.err.println("Supplier " + i + ": no field for " + animal.trim() + ", ignoring it.");
+                    }
+                }
+            }
+            if (species.isEmpty()) {
+                species.addAll(fields);
+            }
+
+            if (shipmentSize < 1) {
+                System.err.println("Supplier " + i + ": shipment size must be at least 1. Using default 10.");
+                shipmentSize = 10;
+            }
+            if (probability < 0 || probability > 1) {
+                System.err.println("Supplier " + i + ": delivery probability must be between 0 and 1. Using " + deliveryProbability + ".");
+                probability = deliveryProbability;
+            }
+            if (minInterval < 1 || maxInterval <= minInterval) {
+                System.err.println("Supplier " + i + ": delivery interval must satisfy 1 <= min < max. Using defaults 80 and 120.");
+                minInterval = 80;
+                maxInterval = 120;
+            }
+            suppliers.add(new RandomSupplier("Supplier(" + i + ")", species, shipmentSize, probability, minInterval, maxInterval));
+        }
+        return suppliers;
+    }
+
     private static int getIntProperty(Properties props, String key, int defaultValue) {
         // If key not present or invalid, return default
         String val = props.getProperty(key);
@@ -182,6 +366,42 @@ public class FarmSimulation {
         }
     }
 
+    // Comma separated list, e.g. trailerCapacities=10,10,20
+    private static List<Integer> getIntListProperty(Properties props, String key, List<Integer> defaultValue) {
+        String val = props.getProperty(key);
+        if (val == null) {
+            return defaultValue;
+        }
+        List<Integer> values = new ArrayList<>();
+        try {
+            for (String item : val.split(",")) {
+                values.add(Integer.parseInt(item.trim()));
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + val + ". Using default " + defaultValue);
+            return defaultValue;
+        }
+        return values;
+    }
+
+    // Comma separated list, e.g. trailerSpeeds=1.0,0.5
+    private static List<Double> getDoubleListProperty(Properties props, String key, List<Double> defaultValue) {
+        String val = props.getProperty(key);
+        if (val == null) {
+            return defaultValue;
+        }
+        List<Double> values = new ArrayList<>();
+        try {
+            for (String item : val.split(",")) {
+                values.add(Double.parseDouble(item.trim()));
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + val + ". Using default " + defaultValue);
+            return defaultValue;
+        }
+        return values;
+    }
+
     private static double getDoubleProperty(Properties props, String key, double defaultValue) {
         // If key not present or invalid, return default
         String val = props.getProperty(key);
@@ -1,17 +1,23 @@
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class Farmer implements Runnable {
 
-    private final Enclosure enclosure;
+    private final List<Enclosure> enclosures;
+    private Enclosure enclosure; // Depot the farmer is currently at (or heading back to)
+    private int position; // Where the farmer currently is on the farm
     private final Map<String, Field> fields;
     private final String farmerName;
     private final TickSystem tickSystem;
     private Map<String, Integer> trailer;
-    private final int maxCapacity = 10;
+    private final int maxCapacity; // Trailer capacity
+    private final double speed; // Travel speed, 1.0 = 1 tick per unit of travel
+    private final DailyStats dailyStats;
     private final int breakDuration;
     private final int breakInterval;
     
@@ -19,14 +25,20 @@ public class Farmer implements Runnable {
     public static final String ANSI_RESET = "\u001B[0m"; 
     public static final String ANSI_YELLOW = "\u001B[33m";
 
-    public Farmer(String farmerName, Enclosure enclosure, Map<String, Field> fields, TickSystem tickSystem, int breakDuration, int breakInterval) {
+    public Farmer(String farmerName, List<Enclosure> enclosures, Enclosure startingEnclosure, Map<String, Field> fields, TickSystem tickSystem, DailyStats dailyStats,
+                  int trailerCapacity, double speed, int breakDuration, int breakInterval) {
         this.trailer = new HashMap<>();
         this.farmerName = farmerName;
-        this.enclosure = enclosure;
+        this.enclosures = enclosures;
+        this.enclosure = startingEnclosure;
+        this.position = startingEnclosure.getPosition();
         this.fields = fields;
         this.tickSystem = tickSystem;
         this.breakDuration = breakDuration;
         this.breakInterval = breakInterval;
+        this.maxCapacity = trailerCapacity;
+        this.speed = speed;
+        this.dailyStats = dailyStats;
     }
 
     @Override
@@ -47,9 +59,20 @@ public class Farmer implements Runnable {
                     trailer = enclosure.loadAnimalsIntoTrailer(trailer, availableSpace, farmerName);
                 }
 
+                // The depot stayed empty: try whichever depot has stock now rather than waiting on this one
+                if (totalAnimalsInTrailer() == 0) {
+                    Enclosure nextEnclosure = chooseEnclosure();
+                    if (nextEnclosure != enclosure) {
+                        enclosure = nextEnclosure;
+                        travelBackToEnclosure(0);
+                    }
+                    continue;
+                }
+
 
                 goToFieldAndStock(); // Move and stock all animals
 
+                enclosure = chooseEnclosure(); // Pick the depot to reload from
                 travelBackToEnclosure(totalAnimalsInTrailer()); // Return to the enclosure
 
             } catch (InterruptedException e) {
@@ -60,7 +83,7 @@ public class Farmer implements Runnable {
     }
 
     private void checkForBreak() throws InterruptedException {
-        int currentTick = tickSystem.getCurrentTick();
+        long currentTick = tickSystem.getCurrentTick();
         if (currentTick % breakInterval == 0) {
             takeABreak();
         }
@@ -77,6 +100,9 @@ public class Farmer implements Runnable {
         // Perform the entire sequence fo travel and stock in fields of the animals
         // For each animal -> Walk to the field and add them to the field
          Set<String> visitedFields = new HashSet<>();
+         FarmEvents.FarmerTrip trip = new FarmEvents.FarmerTrip();
+         trip.begin();
+         int animalsCarried = totalAnimalsInTrailer();
          
         // Create an iterator to safely traverse the trailer's animal entries
         Iterator<Map.Entry<String, Integer>> iterator = trailer.entrySet().iterator();
@@ -94,12 +120,24 @@ public class Farmer implements Runnable {
             
             // Travel from enclosure (or previous field)
             int totalAnimalsLeft = totalAnimalsInTrailer();
-            travelToField(animal, totalAnimalsLeft);
+            travelToField(field, totalAnimalsLeft);
             
             System.out.println("     "  + tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + farmerName + " arrived at " + animal + "field (" + animal + " in trailer: " + quantity + ")");
             
             // Place the animals into the field
+            FarmEvents.Stock stock = new FarmEvents.Stock();
+            stock.begin();
             int actuallyStocked = stockAnimalsInField(field, quantity);
+            dailyStats.recordStocked(actuallyStocked);
+            if (stock.shouldCommit()) {
+                stock.tick = tickSystem.getCurrentTick();
+                stock.farmer = farmerName;
+                stock.species = animal;
+                stock.requested = quantity;
+                stock.stocked = actuallyStocked;
+                stock.fieldCount = field.getCount();
+                stock.commit();
+            }
             
             int leftToStock = quantity - actuallyStocked;
 
@@ -111,6 +149,13 @@ public class Farmer implements Runnable {
             }
         }
 
+        if (trip.shouldCommit()) {
+            trip.tick = tickSystem.getCurrentTick();
+            trip.farmer = farmerName;
+            trip.animalsCarried = animalsCarried;
+            trip.animalsLeft = totalAnimalsInTrailer();
+            trip.commit();
+        }
     }
 
     private int stockAnimalsInField(Field field, int quantity) throws InterruptedException {
@@ -132,7 +177,7 @@ public class Farmer implements Runnable {
             System.out.println("     "+ANSI_YELLOW+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + farmerName +" Adding " + added + " to " + field.getName() + "field"+ ANSI_RESET);
             for (int i=0; i<added; i++) {
                 tickSystem.waitForNextTick();
-                int currentTick = tickSystem.getCurrentTick();
+                long currentTick = tickSystem.getCurrentTick();
                 if (currentTick % breakInterval == 0) {
                     willNeedBreakAfter = true;
                 }
@@ -151,8 +196,21 @@ public class Farmer implements Runnable {
 
     }
 
-    private void travelToField(String field, int numberOfAnimalsCarried) throws InterruptedException {
-        int travelTime = 10 + numberOfAnimalsCarried; // 10 ticks + 1 per animal carried
+    /**
+     * Nearest depot that has animals in stock, larger stock breaking ties. If every depot is
+     * empty, just go to the nearest one and wait there for a delivery.
+     */
+    private Enclosure chooseEnclosure() {
+        return enclosures.stream()
+                .min(Comparator.comparing((Enclosure e) -> e.getStockCount() == 0)
+                        .thenComparingInt(e -> e.distanceTo(position))
+                        .thenComparing(Enclosure::getStockCount, Comparator.reverseOrder()))
+                .orElse(enclosure);
+    }
+
+    private void travelToField(Field field, int numberOfAnimalsCarried) throws InterruptedException {
+        int distance = Math.abs(position - field.getPosition());
+        int travelTime = travelTicks(10 + distance + numberOfAnimalsCarried); // 10 ticks + distance + 1 per animal carried
     
         System.out.println("     " + tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + farmerName +  " carrying " 
             + numberOfAnimalsCarried + " animals " + " (Travel Time: " + travelTime + " ticks)");
@@ -162,11 +220,12 @@ public class Farmer implements Runnable {
             tickSystem.waitForNextTick(); // Simulate travel ticks
             checkForBreak();
         }
+        position = field.getPosition();
     
     }
 
     private void travelBackToEnclosure(int leftoverAnimals) throws InterruptedException {
-        int travelTime = 10 + leftoverAnimals;
+        int travelTime = travelTicks(10 + enclosure.distanceTo(position) + leftoverAnimals);
 
         for (int i=0; i<travelTime; i++) {
             tickSystem.waitForNextTick();
@@ -174,7 +233,13 @@ public class Farmer implements Runnable {
         }
 
         tickSystem.waitForNTicks(travelTime);
-        System.out.println("     "  + tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + farmerName + " traveled back to enclosure");
+        position = enclosure.getPosition();
+        System.out.println("     "  + tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + farmerName + " traveled back to " + enclosure.getName());
+    }
+
+    // Faster trailers cover the same trip in fewer ticks (at least 1)
+    private int travelTicks(int baseTicks) {
+        return Math.max(1, (int) Math.ceil(baseTicks / speed));
     }
 
     private int totalAnimalsInTrailer() {
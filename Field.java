@@ -1,29 +1,41 @@
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class Field {
     private final String name;
     private int count;
     private final int capacity;
+    private final int position; // Position on the farm, used to work out travel distances
     private final TickSystem tickSystem; // Store tick system
 
-    private final Lock lock = new ReentrantLock(true);
-    private final Condition notEmpty = lock.newCondition(); // condition to wait if empty
-    private final Condition notFull = lock.newCondition();
+    private final ProfiledLock lock;
+    private final Condition notEmpty; // condition to wait if empty
+    private final Condition notFull;
 
     private final AtomicInteger buyersWaiting = new AtomicInteger(0);
 
+    // buyOne patience values and result
+    public static final long WAIT_FOREVER = Long.MAX_VALUE;
+    public static final long NO_WAIT = 0;
+    public static final long GAVE_UP = -1;
+    // NO_WAIT only skips the wait for stock. Getting the lock may still take a buyer's one-tick hold
+    // after a purchase, and a timed tryLock keeps the fair queue order (a bare tryLock barges)
+    private static final long NO_WAIT_LOCK_TICKS = 2;
+
     public static final String ANSI_RESET = "\u001B[0m"; 
     public static final String ANSI_GREEN = "\u001B[32m";
 
-    public Field(String name, int initialAnimalCount, TickSystem tickSystem, int capacity) {
+    public Field(String name, int initialAnimalCount, TickSystem tickSystem, int capacity, int position, LockProfiler lockProfiler) {
 
         this.name = name;
         this.count = initialAnimalCount;
         this.tickSystem = tickSystem;
         this.capacity = capacity;
+        this.position = position;
+        this.lock = lockProfiler.newLock("Field(" + name + ")", true);
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
     }
 
     public String getName() {
@@ -40,6 +52,10 @@ public class Field {
     public int getCapacity() {
         return capacity;
     }
+
+    public int getPosition() {
+        return position;
+    }
     
     public int getBuyersWaiting() {
         return buyersWaiting.get(); // No lock needed
@@ -52,25 +68,87 @@ public class Field {
     public void removeBuyerFromQueue() {
         buyersWaiting.decrementAndGet();
     }
-    public void buyOne(String buyerName, int tickItGotIntoQueue) throws InterruptedException {
-        lock.lock();
+    /**
+     * Buy one animal, waiting at most patienceTicks (counted from tickItGotIntoQueue) for the field to be stocked.
+     * @param patienceTicks WAIT_FOREVER, NO_WAIT (give up at once if the field is empty) or a number of ticks
+     * @return how many ticks the buyer waited for the animal, or GAVE_UP if patience ran out first.
+     *         Throws InterruptedException only if interrupted before the sale; an interrupt after it is
+     *         left set on the thread
+     */
+    public long buyOne(String buyerName, long tickItGotIntoQueue, long patienceTicks) throws InterruptedException {
+        FarmEvents.Purchase event = new FarmEvents.Purchase();
+        event.begin();
+        // Counted as waiting from here, not only once it has the lock: while a farmer holds the field
+        // for a stocking run the queue forms on the lock, and that is what buyers balk at
+        addBuyerToQueue();
+        boolean queued = true;
         try {
-            while (count == 0){
-                System.out.println("     "+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + buyerName + " is waiting for " + name + " to be stocked...");
-                addBuyerToQueue();
-                notEmpty.await(); // Wait until some animals are available
+            // Patience covers getting the lock too, a farmer can hold it for a whole stocking run
+            long lockWaitTicks = patienceTicks == NO_WAIT ? NO_WAIT_LOCK_TICKS
+                    : Math.max(0, tickItGotIntoQueue + patienceTicks - tickSystem.getCurrentTick());
+            if (patienceTicks == WAIT_FOREVER) {
+                lock.lock();
+            } else if (!lock.tryLock(lockWaitTicks * tickSystem.getTickDuration(), TimeUnit.MILLISECONDS)) {
+                System.out.println("     "+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + buyerName + " gave up waiting for " + name + " (field busy)");
+                commitPurchaseEvent(event, buyerName, false, tickSystem.getCurrentTick() - tickItGotIntoQueue);
+                return GAVE_UP;
             }
-            count--;
+            try {
+                boolean announced = false;
+                while (count == 0){
+                    long ticksLeft = patienceTicks == WAIT_FOREVER ? WAIT_FOREVER : tickItGotIntoQueue + patienceTicks - tickSystem.getCurrentTick();
+                    if (ticksLeft <= 0) {
+                        System.out.println("     "+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + buyerName + " gave up waiting for " + name);
+                        commitPurchaseEvent(event, buyerName, false, tickSystem.getCurrentTick() - tickItGotIntoQueue);
+                        return GAVE_UP;
+                    }
+                    if (!announced) {
+                        System.out.println("     "+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + buyerName + " is waiting for " + name + " to be stocked...");
+                        announced = true;
+                    }
+                    if (ticksLeft == WAIT_FOREVER) {
+                        notEmpty.await(); // Wait until some animals are available
+                    } else {
+                        notEmpty.await(ticksLeft * tickSystem.getTickDuration(), TimeUnit.MILLISECONDS); // Re-checked in ticks above
+                    }
+                }
+                count--;
+                removeBuyerFromQueue();
+                queued = false;
+
+                long waitedTicks = tickSystem.getCurrentTick() - tickItGotIntoQueue;
+                System.out.println("     "+ANSI_GREEN+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + buyerName + " collected 1: " + name + " from field after waiting " + waitedTicks + " ticks." + "(Remaining " + name + ":" + count + ")"+ANSI_RESET);
 
-            int waitedTicks = tickSystem.getCurrentTick() - tickItGotIntoQueue;
-            System.out.println("     "+ANSI_GREEN+tickSystem.getCurrentTick() + " " + Thread.currentThread().getId() + " " + buyerName + " collected 1: " + name + " from field after waiting " + waitedTicks + " ticks." + "(Remaining " + name + ":" + count + ")"+ANSI_RESET);
+                commitPurchaseEvent(event, buyerName, true, waitedTicks);
 
-            removeBuyerFromQueue();
-            tickSystem.waitForNTicks(1); // Buyer waits for 1 tick after buying
+                try {
+                    tickSystem.waitForNTicks(1); // Buyer waits for 1 tick after buying
+                } catch (InterruptedException e) {
+                    // The sale already happened, report it and let the caller see the interrupt afterwards
+                    Thread.currentThread().interrupt();
+                }
 
-            notFull.signalAll(); // Let the farmer know it's not full
+                notFull.signalAll(); // Let the farmer know it's not full
+                return waitedTicks;
+            } finally {
+                lock.unlock();
+            }
         } finally {
-            lock.unlock();
+            if (queued) { // Gave up or was interrupted while waiting for the lock or for stock
+                removeBuyerFromQueue();
+            }
+        }
+    }
+
+    private void commitPurchaseEvent(FarmEvents.Purchase event, String buyerName, boolean bought, long waitedTicks) {
+        if (event.shouldCommit()) {
+            event.tick = tickSystem.getCurrentTick();
+            event.buyer = buyerName;
+            event.species = name;
+            event.bought = bought;
+            event.waitedTicks = waitedTicks;
+            event.remaining = count;
+            event.commit();
         }
     }
     // Available methods for Farmers to stock animals in field (The purpose of this is to accurately assign breaks to farmers)
@@ -0,0 +1,154 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which animals a farmer loads from an enclosure. Called by Enclosure.loadAnimalsIntoTrailer
+ * while holding the enclosure lock, so implementations must be quick and must not block.
+ * Field counts and waiting buyers are read without the field locks, same as before.
+ */
+public interface LoadingPolicy {
+
+    /**
+     * @param available animals in the enclosure (species -> count), read only
+     * @param fields fields by species
+     * @param capacity space left in the trailer
+     * @return species -> number to load. Enclosure clamps it to what is available and to capacity
+     */
+    Map<String, Integer> chooseLoad(Map<String, Integer> available, Map<String, Field> fields, int capacity);
+
+    static LoadingPolicy fromName(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "tiered":
+                return new Tiered();
+            case "greedy":
+                return new GreedyByDemand();
+            case "proportional":
+                return new ProportionalToBuyers();
+            case "single":
+                return new SingleSpecies();
+            default:
+                throw new IllegalArgumentException("Unknown loading policy: " + name + " (expected tiered, greedy, proportional or single)");
+        }
+    }
+
+    // Field's waiting-buyer count is updated without the field lock, never weigh it below zero
+    static int buyersWaiting(Field field) {
+        return Math.max(0, field.getBuyersWaiting());
+    }
+
+    // More buyers waiting first, then lower stock in the field
+    static Comparator<String> byPriority(Map<String, Field> fields) {
+        return Comparator.comparingInt((String type) -> buyersWaiting(fields.get(type))).reversed()
+                .thenComparingInt(type -> fields.get(type).getCount());
+    }
+
+    static List<String> inStock(Map<String, Integer> available) {
+        List<String> types = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : available.entrySet()) {
+            if (entry.getValue() > 0) {
+                types.add(entry.getKey());
+            }
+        }
+        return types;
+    }
+
+    /** The original rule: at most 4 of the highest priority animal, at most 3 of the second, then fill the rest. */
+    class Tiered implements LoadingPolicy {
+        @Override
+        public Map<String, Integer> chooseLoad(Map<String, Integer> available, Map<String, Field> fields, int capacity) {
+            List<String> sortedAnimals = inStock(available);
+            sortedAnimals.sort(byPriority(fields));
+
+            Map<String, Integer> load = new LinkedHashMap<>();
+            int spaceLeft = capacity;
+            int[] tierLimits = {4, 3}; // Highest priority, second highest
+            for (int i = 0; i < sortedAnimals.size() && spaceLeft > 0; i++) {
+                String type = sortedAnimals.get(i);
+                int limit = i < tierLimits.length ? tierLimits[i] : Integer.MAX_VALUE;
+                int numToTake = Math.min(limit, Math.min(spaceLeft, available.get(type)));
+                load.put(type, numToTake);
+                spaceLeft -= numToTake;
+            }
+            return load;
+        }
+    }
+
+    /** Fill the trailer with whatever is most in demand (waiting buyers + empty space), up to what the field can take. */
+    class GreedyByDemand implements LoadingPolicy {
+        @Override
+        public Map<String, Integer> chooseLoad(Map<String, Integer> available, Map<String, Field> fields, int capacity) {
+            List<String> sortedAnimals = inStock(available);
+            sortedAnimals.sort(Comparator.comparingInt((String type) -> demand(fields.get(type))).reversed());
+
+            Map<String, Integer> load = new LinkedHashMap<>();
+            int spaceLeft = capacity;
+            for (String type : sortedAnimals) {
+                if (spaceLeft == 0) break;
+                Field field = fields.get(type);
+                int fieldSpace = field.getCapacity() - field.getCount();
+                int numToTake = Math.min(spaceLeft, Math.min(available.get(type), fieldSpace));
+                if (numToTake > 0) {
+                    load.put(type, numToTake);
+                    spaceLeft -= numToTake;
+                }
+            }
+            return load;
+        }
+
+        private static int demand(Field field) {
+            return buyersWaiting(field) + (field.getCapacity() - field.getCount());
+        }
+    }
+
+    /** Split the trailer between species in proportion to their waiting buyers (plus one, so idle fields still get some). */
+    class ProportionalToBuyers implements LoadingPolicy {
+        @Override
+        public Map<String, Integer> chooseLoad(Map<String, Integer> available, Map<String, Field> fields, int capacity) {
+            List<String> sortedAnimals = inStock(available);
+            sortedAnimals.sort(byPriority(fields));
+
+            int totalWeight = 0;
+            for (String type : sortedAnimals) {
+                totalWeight += buyersWaiting(fields.get(type)) + 1;
+            }
+
+            Map<String, Integer> load = new LinkedHashMap<>();
+            int spaceLeft = capacity;
+            for (String type : sortedAnimals) {
+                int weight = buyersWaiting(fields.get(type)) + 1;
+                int share = capacity * weight / totalWeight;
+                int numToTake = Math.min(share, Math.min(spaceLeft, available.get(type)));
+                if (numToTake > 0) {
+                    load.put(type, numToTake);
+                    spaceLeft -= numToTake;
+                }
+            }
+            // Rounding (or a species running out) leaves space, top up in priority order
+            for (String type : sortedAnimals) {
+                if (spaceLeft == 0) break;
+                int loaded = load.getOrDefault(type, 0);
+                int numToTake = Math.min(spaceLeft, available.get(type) - loaded);
+                if (numToTake > 0) {
+                    load.put(type, loaded + numToTake);
+                    spaceLeft -= numToTake;
+                }
+            }
+            return load;
+        }
+    }
+
+    /** Full load of the single highest priority species, so the farmer only visits one field per trip. */
+    class SingleSpecies implements LoadingPolicy {
+        @Override
+        public Map<String, Integer> chooseLoad(Map<String, Integer> available, Map<String, Field> fields, int capacity) {
+            Map<String, Integer> load = new LinkedHashMap<>();
+            inStock(available).stream()
+                    .min(byPriority(fields))
+                    .ifPresent(type -> load.put(type, Math.min(capacity, available.get(type))));
+            return load;
+        }
+    }
+}
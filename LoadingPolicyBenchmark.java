@@ -0,0 +1,77 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs the simulation headless for every loading policy and trailer fleet mix and compares
+ * animals stocked into fields per tick and buyer wait p99. The p99 includes buyers who gave up
+ * or were still waiting at the end of the run (the "unserved" column), not just completed purchases.
+ *
+ * Compile and run:
+ *     javac *.java
+ *     java LoadingPolicyBenchmark [runtimeMsPerScenario]
+ *
+ * Everything else comes from farmConfig.properties, except that ticks are sped up and the
+ * day is made long enough that the daily stats never roll over during a run.
+ */
+public class LoadingPolicyBenchmark {
+
+    private static final long DEFAULT_RUNTIME_MS = 10_000;
+
+    private static final List<String> POLICIES = List.of("tiered", "greedy", "proportional", "single");
+
+    // name, trailerCapacities, trailerSpeeds
+    private static final String[][] FLEETS = {
+            {"uniform", "10", "1.0"},
+            {"mixed", "6,10,16", "1.5,1.0,0.7"},
+            {"large-slow", "20", "0.6"},
+    };
+
+    public static void main(String[] args) {
+        long runtimeMs = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_RUNTIME_MS;
+
+        Properties base = new Properties();
+        try (FileInputStream in = new FileInputStream("farmConfig.properties")) {
+            base.load(in);
+        } catch (IOException e) {
+            System.err.println("Could not load farmConfig.properties. Using defaults instead.");
+        }
+        base.setProperty("tickDuration", "2");
+        base.setProperty("ticksPerDay", String.valueOf(Integer.MAX_VALUE));
+        base.setProperty("lockHoldBudget", String.valueOf(Integer.MAX_VALUE / 1000)); // Keep the watchdog quiet
+
+        PrintStream out = System.out;
+        PrintStream silent = new PrintStream(OutputStream.nullOutputStream());
+
+        out.println("============== Loading Policy Benchmark (" + runtimeMs + " ms per run) ==============");
+        out.println(String.format("  %-13s %-11s %8s %9s %13s %10s %10s %9s %16s",
+                "policy", "fleet", "ticks", "stocked", "stocked/tick", "purchases", "abandoned", "unserved", "wait p99 (ticks)"));
+
+        for (String[] fleet : FLEETS) {
+            for (String policy : POLICIES) {
+                Properties props = new Properties();
+                props.putAll(base);
+                props.setProperty("loadingPolicy", policy);
+                props.setProperty("trailerCapacities", fleet[1]);
+                props.setProperty("trailerSpeeds", fleet[2]);
+
+                System.setOut(silent); // The simulation logs every action
+                DailyStats stats;
+                try {
+                    stats = FarmSimulation.runSimulation(props, runtimeMs, false);
+                } finally {
+                    System.setOut(out);
+                }
+
+                long ticks = stats.getTicksSampled();
+                out.println(String.format("  %-13s %-11s %8d %9d %13.3f %10d %10d %9d %16d",
+                        policy, fleet[0], ticks, stats.getAnimalsStocked(),
+                        ticks == 0 ? 0.0 : (double) stats.getAnimalsStocked() / ticks,
+                        stats.getPurchases(), stats.getAbandoned(), stats.getUnservedWaits(), stats.getWaitPercentile(0.99)));
+            }
+        }
+    }
+}
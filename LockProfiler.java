@@ -0,0 +1,60 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates ProfiledLocks for Fields and the Enclosure and keeps track of them so it can:
+ *  - run a watchdog that prints the owner's stack when a lock is held longer than holdBudgetTicks
+ *  - print a contention report (wait/hold time per lock and per owner) at shutdown
+ */
+public class LockProfiler {
+    private final List<ProfiledLock> locks = new CopyOnWriteArrayList<>();
+    private final TickSystem tickSystem;
+    private final int holdBudgetTicks;
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Lock-Watchdog");
+        t.setDaemon(true); // Never keep the JVM alive just for the watchdog
+        return t;
+    });
+
+    public LockProfiler(TickSystem tickSystem, int holdBudgetTicks) {
+        this.tickSystem = tickSystem;
+        this.holdBudgetTicks = holdBudgetTicks;
+    }
+
+    public ProfiledLock newLock(String name, boolean fair) {
+        long budgetNanos = TimeUnit.MILLISECONDS.toNanos((long) holdBudgetTicks * tickSystem.getTickDuration());
+        ProfiledLock lock = new ProfiledLock(name, fair, budgetNanos);
+        locks.add(lock);
+        return lock;
+    }
+
+    public void start() {
+        // Check once per tick, that is the resolution the budget is expressed in
+        long period = Math.max(1, tickSystem.getTickDuration());
+        watchdog.scheduleAtFixedRate(this::checkHolds, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void checkHolds() {
+        long now = System.nanoTime();
+        for (ProfiledLock lock : locks) {
+            lock.checkHold(now, tickSystem.getTickDuration());
+        }
+    }
+
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    public void printReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("============== Lock Contention Report ==============\n");
+        sb.append("  Hold budget: ").append(holdBudgetTicks).append(" ticks\n");
+        locks.stream()
+             .sorted((a, b) -> Long.compare(b.getTotalWaitNanos(), a.getTotalWaitNanos())) // Most contended first
+             .forEach(lock -> lock.appendReport(sb, tickSystem.getTickDuration()));
+        System.out.print(sb);
+    }
+}
@@ -0,0 +1,304 @@
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A ReentrantLock that records how long each owner waited to acquire it and how long it was held.
+ * Time spent parked on one of its conditions (await) is not counted as holding the lock, since
+ * await releases it. Created through LockProfiler so the watchdog and shutdown report can see it.
+ */
+public class ProfiledLock implements Lock {
+    private final String name;
+    private final ReentrantLock lock;
+    private final long holdBudgetNanos;
+
+    // Owner of the current (outermost) hold. Read by the watchdog thread, so volatile
+    private volatile Thread owner;
+    private volatile long acquiredAtNanos;
+    private volatile boolean flagged; // watchdog already reported the current hold
+
+    private final Map<String, OwnerStats> statsByOwner = new ConcurrentHashMap<>();
+
+    ProfiledLock(String name, boolean fair, long holdBudgetNanos) {
+        this.name = name;
+        this.lock = new ReentrantLock(fair);
+        this.holdBudgetNanos = holdBudgetNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // =========================== Lock ===========================
+
+    @Override
+    public void lock() {
+        long start = System.nanoTime();
+        lock.lock();
+        onAcquired(start);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            lock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            onFailed(start);
+            throw e;
+        }
+        onAcquired(start);
+    }
+
+    @Override
+    public boolean tryLock() {
+        long start = System.nanoTime();
+        if (!lock.tryLock()) {
+            onFailed(start);
+            return false;
+        }
+        onAcquired(start);
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(time, unit);
+        } catch (InterruptedException e) {
+            onFailed(start);
+            throw e;
+        }
+        if (!acquired) {
+            onFailed(start);
+            return false;
+        }
+        onAcquired(start);
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        if (lock.getHoldCount() == 1) {
+            onReleasing();
+        }
+        lock.unlock();
+    }
+
+    @Override
+    public Condition newCondition() {
+        return new ProfiledCondition(lock.newCondition());
+    }
+
+    // =========================== Bookkeeping ===========================
+
+    private void onAcquired(long waitStart) {
+        if (lock.getHoldCount() > 1) {
+            return; // Re-entrant acquire, the outer hold is already being timed
+        }
+        long now = System.nanoTime();
+        statsFor(Thread.currentThread()).recordWait(now - waitStart);
+        startHold(now);
+    }
+
+    // Gave up (timed out or interrupted): the time spent queueing is still contention
+    private void onFailed(long waitStart) {
+        statsFor(Thread.currentThread()).recordFailedWait(System.nanoTime() - waitStart);
+    }
+
+    private void startHold(long now) {
+        acquiredAtNanos = now;
+        flagged = false;
+        owner = Thread.currentThread();
+    }
+
+    // Called by the owner while it still holds the lock
+    private void onReleasing() {
+        long held = System.nanoTime() - acquiredAtNanos;
+        owner = null;
+        statsFor(Thread.currentThread()).recordHold(held, held > holdBudgetNanos);
+    }
+
+    private OwnerStats statsFor(Thread thread) {
+        return statsByOwner.computeIfAbsent(thread.getName(), k -> new OwnerStats());
+    }
+
+    /**
+     * Called periodically by the LockProfiler watchdog. If the current hold has gone over budget,
+     * print the owner's stack once so we can see where it is stalling.
+     */
+    void checkHold(long now, long tickDuration) {
+        Thread currentOwner = owner;
+        if (currentOwner == null || flagged) {
+            return;
+        }
+        long acquiredAt = acquiredAtNanos;
+        long held = now - acquiredAt;
+        if (held <= holdBudgetNanos) {
+            return;
+        }
+        StackTraceElement[] stack = currentOwner.getStackTrace();
+        // The owner may have released (or released and re-acquired) while we grabbed its stack
+        if (currentOwner != owner || acquiredAt != acquiredAtNanos) {
+            return;
+        }
+        flagged = true;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("     [LockWatchdog] ").append(new Date()).append(" ").append(name)
+          .append(" held by ").append(currentOwner.getName())
+          .append(" for ").append(toTicks(held, tickDuration)).append(" ticks (budget ")
+          .append(toTicks(holdBudgetNanos, tickDuration)).append(" ticks)\n");
+        for (StackTraceElement element : stack) {
+            sb.append("          at ").append(element).append("\n");
+        }
+        System.err.print(sb);
+    }
+
+    void appendReport(StringBuilder sb, long tickDuration) {
+        long totalAcquires = 0;
+        long totalFailed = 0;
+        long totalWait = 0;
+        long totalHold = 0;
+        for (OwnerStats stats : statsByOwner.values()) {
+            totalAcquires += stats.acquires;
+            totalFailed += stats.failedAcquires;
+            totalWait += stats.totalWaitNanos;
+            totalHold += stats.totalHoldNanos;
+        }
+        sb.append(String.format("  %-20s acquires=%-7d failed=%-5d wait=%8.1f ms  hold=%8.1f ms (%d ticks)  queued now=%d%n",
+                name, totalAcquires, totalFailed, totalWait / 1e6, totalHold / 1e6, toTicks(totalHold, tickDuration), lock.getQueueLength()));
+
+        statsByOwner.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().totalWaitNanos, a.getValue().totalWaitNanos))
+                .forEach(e -> {
+                    OwnerStats s = e.getValue();
+                    long attempts = s.acquires + s.failedAcquires;
+                    sb.append(String.format("      %-16s acquires=%-7d failed=%-5d wait avg=%7.2f ms max=%8.1f ms  hold avg=%7.2f ms max=%8.1f ms  over budget=%d%n",
+                            e.getKey(), s.acquires, s.failedAcquires,
+                            attempts == 0 ? 0.0 : s.totalWaitNanos / 1e6 / attempts, s.maxWaitNanos / 1e6,
+                            s.holds == 0 ? 0.0 : s.totalHoldNanos / 1e6 / s.holds, s.maxHoldNanos / 1e6,
+                            s.overBudget));
+                });
+    }
+
+    long getTotalWaitNanos() {
+        return statsByOwner.values().stream().mapToLong(s -> s.totalWaitNanos).sum();
+    }
+
+    private static long toTicks(long nanos, long tickDuration) {
+        return tickDuration <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos) / tickDuration;
+    }
+
+    /**
+     * Per-owner counters. Only ever updated by the owning thread itself (holds and successful waits
+     * while it holds the lock, failed waits right after giving up), so there are no concurrent writes.
+     * Wait totals include failed acquisitions.
+     */
+    private static class OwnerStats {
+        long acquires;
+        long failedAcquires;
+        long totalWaitNanos;
+        long maxWaitNanos;
+        long holds;
+        long totalHoldNanos;
+        long maxHoldNanos;
+        long overBudget;
+
+        void recordWait(long nanos) {
+            acquires++;
+            totalWaitNanos += nanos;
+            maxWaitNanos = Math.max(maxWaitNanos, nanos);
+        }
+
+        void recordFailedWait(long nanos) {
+            failedAcquires++;
+            totalWaitNanos += nanos;
+            maxWaitNanos = Math.max(maxWaitNanos, nanos);
+        }
+
+        void recordHold(long nanos, boolean overBudgetHold) {
+            holds++;
+            totalHoldNanos += nanos;
+            maxHoldNanos = Math.max(maxHoldNanos, nanos);
+            if (overBudgetHold) {
+                overBudget++;
+            }
+        }
+    }
+
+    /**
+     * Condition wrapper: await releases the lock, so the hold is closed before parking and a
+     * new one is started once the thread has re-acquired the lock.
+     */
+    private class ProfiledCondition implements Condition {
+        private final Condition condition;
+
+        ProfiledCondition(Condition condition) {
+            this.condition = condition;
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            onReleasing();
+            try {
+                condition.await();
+            } finally {
+                startHold(System.nanoTime());
+            }
+        }
+
+        @Override
+        public void awaitUninterruptibly() {
+            onReleasing();
+            condition.awaitUninterruptibly();
+            startHold(System.nanoTime());
+        }
+
+        @Override
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            onReleasing();
+            try {
+                return condition.awaitNanos(nanosTimeout);
+            } finally {
+                startHold(System.nanoTime());
+            }
+        }
+
+        @Override
+        public boolean await(long time, TimeUnit unit) throws InterruptedException {
+            onReleasing();
+            try {
+                return condition.await(time, unit);
+            } finally {
+                startHold(System.nanoTime());
+            }
+        }
+
+        @Override
+        public boolean awaitUntil(Date deadline) throws InterruptedException {
+            onReleasing();
+            try {
+                return condition.awaitUntil(deadline);
+            } finally {
+                startHold(System.nanoTime());
+            }
+        }
+
+        @Override
+        public void signal() {
+            condition.signal();
+        }
+
+        @Override
+        public void signalAll() {
+            condition.signalAll();
+        }
+    }
+}
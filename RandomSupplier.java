@@ -0,0 +1,76 @@
+import java.util.*;
+
+/**
+ * The original delivery behaviour: each tick a shipment arrives with probability deliveryProbability,
+ * and at the latest minInterval-maxInterval ticks after the previous one. Shipments are randomly
+ * split over the supplier's species, at most 3 per type with the last type getting the rest.
+ */
+public class RandomSupplier implements AnimalSupplier {
+    private final String name;
+    private final Random rand;
+    private final ArrayList<String> animals;
+    private final int shipmentSize;
+    private final double deliveryProbabilty;
+    private final int minInterval;
+    private final int maxInterval;
+
+    private long lastDeliveryTick = -100; // Ensures first delivery happens early
+    private int nextDeliveryThreshold; // Randomized delivery threshold
+
+    public RandomSupplier(String name, List<String> animals, int shipmentSize, double deliveryProbabilty, int minInterval, int maxInterval) {
+        this.name = name;
+        this.rand = new Random();
+        this.animals = new ArrayList<>(animals); // Own copy, createRandomDelivery shuffles it in place
+        this.shipmentSize = shipmentSize;
+        this.deliveryProbabilty = deliveryProbabilty;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.nextDeliveryThreshold = nextThreshold(); // First threshold between minInterval-maxInterval ticks
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Map<String, Integer> nextShipment(long currentTick) {
+        boolean shouldDeliver = (rand.nextDouble() < deliveryProbabilty) || (currentTick - lastDeliveryTick >= nextDeliveryThreshold);
+        if (!shouldDeliver) {
+            return Collections.emptyMap();
+        }
+
+        lastDeliveryTick = currentTick;
+        nextDeliveryThreshold = nextThreshold();
+        System.out.println("     "+currentTick + " " + Thread.currentThread().getId() + " " + name + " Next_delivery_threshold : " + nextDeliveryThreshold + " ticks");
+        return createRandomDelivery(shipmentSize);
+    }
+
+    private int nextThreshold() {
+        return minInterval + rand.nextInt(maxInterval - minInterval);
+    }
+
+    /**
+     * Creates a random distribution for a total number of animals.
+     * @param totalAnimals
+     * @return Map with animals (adding up to totalAnimals)
+     */
+    private Map<String, Integer> createRandomDelivery(int totalAnimals) {
+        ArrayList<String> animalList = this.animals;
+        Collections.shuffle(animalList, rand);
+    
+        Map<String, Integer> newDelivery = new HashMap<>();
+        int spaceLeft = totalAnimals;
+    
+        for (int i = 0; i < animalList.size(); i++) {
+            if (spaceLeft == 0) break; // Stop when all animals are assigned
+    
+            int maxAllocation = Math.min(spaceLeft, 3); // Max 3 per type
+            int newEntrySize = (i == animalList.size() - 1) ? spaceLeft : 1 + rand.nextInt(maxAllocation); // Last type gets all remaining space
+            newDelivery.put(animalList.get(i), newEntrySize);
+            spaceLeft -= newEntrySize;
+        }
+    
+        return newDelivery;
+    }
+}
@@ -1,24 +1,51 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
 
 public class TickSystem {
-    private int currentTick = 0;
-    private final int totalTicks;
+    // Monotonic, never wraps. Use getDay()/getTickOfDay() for the day view
+    private long currentTick = 0;
+    private final int ticksPerDay;
     private final int tickDuration; // Time in milliseconds per tick
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
-    public TickSystem(int totalTicks, int tickDuration) {
-        this.totalTicks = totalTicks;
+    // Called on the scheduler thread after every tick, outside the TickSystem monitor
+    private final List<LongConsumer> tickListeners = new CopyOnWriteArrayList<>();
+
+    public TickSystem(int ticksPerDay, int tickDuration) {
+        this.ticksPerDay = ticksPerDay;
         this.tickDuration = tickDuration;
     }
 
-    public synchronized int getCurrentTick() {
+    public synchronized long getCurrentTick() {
         return currentTick;
     }
 
+    public synchronized long getDay() {
+        return currentTick / ticksPerDay;
+    }
+
+    public synchronized int getTickOfDay() {
+        return (int) (currentTick % ticksPerDay);
+    }
+
+    public int getTicksPerDay() {
+        return ticksPerDay;
+    }
+
+    public int getTickDuration() {
+        return tickDuration;
+    }
+
+    public void addTickListener(LongConsumer listener) {
+        tickListeners.add(listener);
+    }
+
     public synchronized void waitForNextTick() throws InterruptedException {
-        int lastTick = currentTick;
+        long lastTick = currentTick;
         while (currentTick == lastTick) {
             wait(); // Wait until next tick occurs
         }
@@ -31,10 +58,28 @@ public class TickSystem {
         }
     }
 
-    private synchronized void nextTick() {
-        currentTick = (currentTick + 1) % totalTicks; // Reset to 0 after a full day
-        System.out.println( currentTick +" ⏳");
-        notifyAll(); // Wake up all waiting threads
+    private void nextTick() {
+        long tick;
+        synchronized (this) {
+            tick = ++currentTick;
+            System.out.println( tick +" ⏳");
+            notifyAll(); // Wake up all waiting threads
+        }
+
+        FarmEvents.Tick event = new FarmEvents.Tick();
+        if (event.isEnabled()) {
+            event.tick = tick;
+            event.commit();
+        }
+
+        // Listeners run without holding the monitor, so they are free to take Field/Enclosure locks
+        for (LongConsumer listener : tickListeners) {
+            try {
+                listener.accept(tick);
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // Don't let one listener cancel the tick schedule
+            }
+        }
     }
 
     public void start() {